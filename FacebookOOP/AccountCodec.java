@@ -0,0 +1,708 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * AccountCodec.java
+ *
+ * Author: Guilherme Kologeski
+ *
+ * This class converts 'FacebookAccount' objects (and their subclasses)
+ * to and from a compact, versioned binary format, so that a whole
+ * dataset can be saved to a file or sent to another process.
+ *
+ * The format is much smaller than the 'toString()' text because:
+ * 1. Integers are written as *varints* (small numbers use 1 byte).
+ * 2. Every string (URL, username, person name) is written
+ *    only ONCE; later uses refer to it by a number (a "dictionary").
+ * 3. Every 'Person' is written in full only ONCE (and again only if
+ *    its name or age changed since); friend lists are stored as the
+ *    *differences* between consecutive person ids ("delta" encoding).
+ *
+ * Layout of a stream:
+ *   magic "FBAC" | version | record* | END
+ *   record = tag | url | username | password | (type-specific data)
+ *
+ * The 'Encoder' and 'Decoder' nested classes work on a stream of
+ * accounts, one at a time, and never use reflection. The Decoder
+ * never consumes bytes past the END marker, so other data may follow
+ * an account stream in the same file or connection.
+ *
+ * SECURITY: passwords are left out by default (written as 'null'),
+ * like in toString(), so decoded accounts have no password; their
+ * first setPassword() call sets one without the old-password check. Passing
+ * 'includePasswords = true' writes them as *plaintext*; only do so
+ * when the destination file or process is trusted.
+ */
+public class AccountCodec {
+
+    // --- Format Constants ---
+
+    /** The 4 bytes that open every stream ("FBAC" in ASCII). */
+    private static final byte[] MAGIC = { 'F', 'B', 'A', 'C' };
+
+    /** The current version of the format. Bump it on any layout change. */
+    public static final int FORMAT_VERSION = 2;
+
+    /** Record tags: one byte written before each account. */
+    private static final int TAG_END = 0;
+    private static final int TAG_ACCOUNT = 1;
+    private static final int TAG_FANPAGE = 2;
+    private static final int TAG_USER_PROFILE = 3;
+
+    /**
+     * String references: 0 means 'null', 1 means "a new string follows",
+     * and any value 'n' >= 2 refers to dictionary entry 'n - 2'.
+     */
+    private static final int STRING_NULL = 0;
+    private static final int STRING_LITERAL = 1;
+    private static final int STRING_FIRST_REF = 2;
+
+    /**
+     * The longest string (in UTF-8 bytes) the format accepts. The
+     * Decoder rejects larger lengths, so a corrupt stream cannot make
+     * it allocate a huge buffer.
+     */
+    public static final int MAX_STRING_BYTES = 64 * 1024;
+
+    /** Size of the internal byte buffers used by the Encoder/Decoder. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Private constructor: this class only holds static helpers
+     * and the nested Encoder/Decoder classes.
+     */
+    private AccountCodec() {
+    }
+
+    // --- Convenience Methods ---
+
+    /**
+     * Writes all *active* accounts of a Facebook instance to a stream,
+     * WITHOUT their passwords. The stream is flushed, but NOT closed.
+     *
+     * @param facebook The container whose accounts will be written.
+     * @param out      The destination stream.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static void encode(Facebook facebook, OutputStream out) throws IOException {
+        encode(facebook, out, false);
+    }
+
+    /**
+     * Writes all *active* accounts of a Facebook instance to a stream.
+     * The stream is flushed, but NOT closed.
+     *
+     * @param facebook         The container whose accounts will be written.
+     * @param out              The destination stream.
+     * @param includePasswords 'true' to write the passwords as plaintext
+     * (see the SECURITY note above), 'false' to leave them out.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static void encode(Facebook facebook, OutputStream out, boolean includePasswords) throws IOException {
+        FacebookAccount[] accounts = facebook.getAllAccounts();
+        Encoder encoder = new Encoder(out, includePasswords);
+
+        for (int i = 0; i < facebook.getAccountCount(); i++) {
+            encoder.write(accounts[i]);
+        }
+
+        encoder.finish();
+    }
+
+    /**
+     * Reads every account from a stream and adds it to a Facebook instance.
+     * The stream is left positioned right after the END marker.
+     *
+     * @param in       The source stream (wrap it in a BufferedInputStream
+     * for speed; see Decoder).
+     * @param facebook The container that will receive the accounts.
+     * @return The number of accounts read, or -1 if the container
+     * became full before the end of the stream.
+     * @throws IOException if the stream is truncated or malformed.
+     */
+    public static int decode(InputStream in, Facebook facebook) throws IOException {
+        Decoder decoder = new Decoder(in);
+        int count = 0;
+
+        FacebookAccount account = decoder.read();
+        while (account != null) {
+            if (!facebook.addAccount(account)) {
+                return -1; // Failure: Facebook is full
+            }
+            count++;
+            account = decoder.read();
+        }
+
+        return count;
+    }
+
+    // --- Encoder ---
+
+    /**
+     * Writes accounts to an OutputStream, one record at a time.
+     * Records are buffered: call flush() to send them right away,
+     * and finish() after the last account.
+     */
+    public static class Encoder {
+
+        private final OutputStream out;
+
+        /** Whether passwords are written (plaintext) or left out. */
+        private final boolean includePasswords;
+
+        /** Internal buffer, so the underlying stream gets large writes. */
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        /** The number of bytes in 'buffer' not yet sent to the stream. */
+        private int position;
+
+        /** Maps every string already written to its dictionary number. */
+        private final HashMap<String, Integer> strings = new HashMap<>();
+
+        /**
+         * Maps every Person already written to its person id.
+         * 'Identity' is used because Person does not override equals().
+         */
+        private final IdentityHashMap<Person, Integer> persons = new IdentityHashMap<>();
+
+        /**
+         * The name last written for each person id, used to detect
+         * persons changed between two write() calls.
+         */
+        private String[] writtenNames = new String[16];
+
+        /** The age last written for each person id (same purpose). */
+        private int[] writtenAges = new int[16];
+
+        /** Reusable scratch list of the person ids changed in one friends list. */
+        private final int[] changedIds = new int[UserProfile.MAX_FRIENDS];
+
+        /**
+         * Constructs a new Encoder that leaves passwords out,
+         * and writes the stream header.
+         *
+         * @param out The destination stream.
+         * @throws IOException if the header cannot be written.
+         */
+        public Encoder(OutputStream out) throws IOException {
+            this(out, false);
+        }
+
+        /**
+         * Constructs a new Encoder and writes the stream header.
+         *
+         * @param out              The destination stream.
+         * @param includePasswords 'true' to write the passwords as plaintext
+         * (see the SECURITY note above), 'false' to leave them out.
+         * @throws IOException if the header cannot be written.
+         */
+        public Encoder(OutputStream out, boolean includePasswords) throws IOException {
+            this.out = out;
+            this.includePasswords = includePasswords;
+            this.position = 0;
+
+            for (int i = 0; i < MAGIC.length; i++) {
+                writeByte(MAGIC[i]);
+            }
+            writeVarint(FORMAT_VERSION);
+        }
+
+        /**
+         * Writes one account record.
+         *
+         * @param account The account to write (Fanpage, UserProfile or
+         * a plain FacebookAccount).
+         * @throws IOException if the stream cannot be written.
+         * @throws IllegalArgumentException if the account is of an
+         * unknown subclass, or holds a string longer than MAX_STRING_BYTES.
+         */
+        public void write(FacebookAccount account) throws IOException {
+            // 1. Pick the tag from the *exact* class of the object
+            int tag;
+            if (account.getClass() == Fanpage.class) {
+                tag = TAG_FANPAGE;
+            } else if (account.getClass() == UserProfile.class) {
+                tag = TAG_USER_PROFILE;
+            } else if (account.getClass() == FacebookAccount.class) {
+                tag = TAG_ACCOUNT;
+            } else {
+                throw new IllegalArgumentException("Unsupported account type: "
+                        + account.getClass().getSimpleName());
+            }
+
+            // 2. Write the common (inherited) fields
+            writeByte(tag);
+            writeString(account.getUrl());
+            writeString(account.getUsername());
+            writeString(this.includePasswords ? account.getPassword() : null);
+
+            // 3. Write the type-specific fields
+            if (tag == TAG_FANPAGE) {
+                writeVarint(((Fanpage) account).getLikes());
+            } else if (tag == TAG_USER_PROFILE) {
+                writeFriends((UserProfile) account);
+            }
+        }
+
+        /**
+         * Sends every record written so far to the stream and flushes it,
+         * so that a reader on the other side (e.g., another process) can
+         * decode them without waiting for the buffer to fill or for finish().
+         *
+         * @throws IOException if the stream cannot be written.
+         */
+        public void flush() throws IOException {
+            flushBuffer();
+            this.out.flush();
+        }
+
+        /**
+         * Writes the END marker and flushes everything to the stream.
+         * The underlying stream is NOT closed.
+         *
+         * @throws IOException if the stream cannot be written.
+         */
+        public void finish() throws IOException {
+            writeByte(TAG_END);
+            flush();
+        }
+
+        /**
+         * Writes a user's friends list in three parts:
+         * 1. The friends that have never been written before (new persons).
+         * 2. The known friends whose name or age changed since they were
+         *    last written (id, then the new name and age).
+         * 3. The list of person ids, as differences from the previous id.
+         *
+         * Ids are stored as 'id + 1' so that 0 can mean a 'null' slot.
+         */
+        private void writeFriends(UserProfile user) throws IOException {
+            int friendCount = user.getFriendCount();
+
+            // 1. Find the persons not yet in the table, and the known
+            //    persons that changed (a person may appear twice in the
+            //    same list, so the written values are updated at once)
+            int firstNewId = this.persons.size();
+            int changedCount = 0;
+            for (int i = 0; i < friendCount; i++) {
+                Person friend = user.getFriend(i);
+                if (friend == null) {
+                    continue;
+                }
+
+                Integer id = this.persons.get(friend);
+                if (id == null) {
+                    this.persons.put(friend, this.persons.size());
+                    remember(this.persons.size() - 1, friend);
+                } else if (id < firstNewId && isChanged(id, friend)) {
+                    this.changedIds[changedCount++] = id;
+                    remember(id, friend);
+                }
+            }
+
+            // 2. Write the new persons, in id order
+            writeVarint(this.persons.size() - firstNewId);
+            for (int id = firstNewId; id < this.persons.size(); id++) {
+                writeString(this.writtenNames[id]);
+                writeVarint(zigZag(this.writtenAges[id]));
+            }
+
+            // 3. Write the changed persons
+            writeVarint(changedCount);
+            for (int i = 0; i < changedCount; i++) {
+                int id = this.changedIds[i];
+                writeVarint(id);
+                writeString(this.writtenNames[id]);
+                writeVarint(zigZag(this.writtenAges[id]));
+            }
+
+            // 4. Write the delta-encoded id list
+            writeVarint(friendCount);
+            int previous = 0;
+            for (int i = 0; i < friendCount; i++) {
+                Person friend = user.getFriend(i);
+                int current = (friend == null) ? 0 : this.persons.get(friend) + 1;
+                writeVarint(zigZag(current - previous));
+                previous = current;
+            }
+        }
+
+        /**
+         * Checks whether a known person's name or age differs from
+         * what was last written for its id.
+         */
+        private boolean isChanged(int id, Person person) {
+            String name = person.getName();
+            boolean sameName = (name == null) ? this.writtenNames[id] == null : name.equals(this.writtenNames[id]);
+            return !sameName || person.getAge() != this.writtenAges[id];
+        }
+
+        /**
+         * Stores a person's current name and age under its id,
+         * growing the arrays when needed.
+         */
+        private void remember(int id, Person person) {
+            if (id >= this.writtenNames.length) {
+                int newLength = Math.max(id + 1, this.writtenNames.length * 2);
+                String[] grownNames = new String[newLength];
+                int[] grownAges = new int[newLength];
+                System.arraycopy(this.writtenNames, 0, grownNames, 0, this.writtenNames.length);
+                System.arraycopy(this.writtenAges, 0, grownAges, 0, this.writtenAges.length);
+                this.writtenNames = grownNames;
+                this.writtenAges = grownAges;
+            }
+            this.writtenNames[id] = person.getName();
+            this.writtenAges[id] = person.getAge();
+        }
+
+        /**
+         * Writes a string as a dictionary reference, or as a new
+         * literal (UTF-8 bytes) the first time it is seen.
+         */
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(STRING_NULL);
+                return;
+            }
+
+            Integer ref = this.strings.get(value);
+            if (ref != null) {
+                writeVarint(ref + STRING_FIRST_REF);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_STRING_BYTES) {
+                throw new IllegalArgumentException("String too long to encode: " + bytes.length + " bytes");
+            }
+
+            this.strings.put(value, this.strings.size());
+            writeVarint(STRING_LITERAL);
+            writeVarint(bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                writeByte(bytes[i]);
+            }
+        }
+
+        /**
+         * Writes an int as an unsigned varint: 7 bits per byte,
+         * with the high bit set on every byte except the last.
+         */
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        private void writeByte(int b) throws IOException {
+            if (this.position == this.buffer.length) {
+                flushBuffer();
+            }
+            this.buffer[this.position++] = (byte) b;
+        }
+
+        private void flushBuffer() throws IOException {
+            this.out.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    // --- Decoder ---
+
+    /**
+     * Reads accounts from an InputStream, one record at a time.
+     * read() returns 'null' once the END marker is reached.
+     *
+     * The Decoder never consumes bytes past the END marker:
+     * 1. If the stream supports mark()/reset() (e.g., BufferedInputStream,
+     *    ByteArrayInputStream), it reads in large blocks and, at the END
+     *    marker, rewinds the stream to just after it.
+     * 2. Otherwise, it reads the stream one byte at a time.
+     */
+    public static class Decoder {
+
+        private final InputStream in;
+
+        /** Whether the stream supports mark()/reset(), allowing block reads. */
+        private final boolean canRewind;
+
+        /** Internal buffer, so the underlying stream gets large reads. */
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        /** The index of the next unread byte in 'buffer'. */
+        private int position;
+
+        /** The number of valid bytes in 'buffer' (read from the stream). */
+        private int limit;
+
+        /** Dictionary of strings read so far, indexed by their number. */
+        private String[] strings = new String[16];
+
+        /** The number of strings in the dictionary (the next string number). */
+        private int stringCount;
+
+        /** Table of persons read so far, indexed by their person id. */
+        private Person[] persons = new Person[16];
+
+        /** The number of persons in the table (the next person id). */
+        private int personCount;
+
+        /** Reusable scratch space for decoding UTF-8 strings. */
+        private byte[] stringBytes = new byte[64];
+
+        /** Set once the END marker has been read. */
+        private boolean finished;
+
+        /**
+         * Constructs a new Decoder and validates the stream header.
+         *
+         * @param in The source stream.
+         * @throws IOException if the header is missing, malformed,
+         * or of an unsupported version.
+         */
+        public Decoder(InputStream in) throws IOException {
+            this.in = in;
+            this.canRewind = in.markSupported();
+            this.position = 0;
+            this.limit = 0;
+            this.stringCount = 0;
+            this.personCount = 0;
+            this.finished = false;
+
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (readByte() != MAGIC[i]) {
+                    throw new IOException("Not an account stream (bad magic)");
+                }
+            }
+
+            int version = readVarint();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported account stream version: " + version);
+            }
+        }
+
+        /**
+         * Reads the next account record.
+         *
+         * @return The decoded account, or 'null' at the end of the stream.
+         * @throws IOException if the stream is truncated or malformed.
+         */
+        public FacebookAccount read() throws IOException {
+            if (this.finished) {
+                return null;
+            }
+
+            int tag = readByte();
+            if (tag == TAG_END) {
+                this.finished = true;
+                giveBackUnreadBytes();
+                return null;
+            }
+
+            String url = readString();
+            String username = readString();
+            String password = readString();
+
+            if (tag == TAG_ACCOUNT) {
+                return new FacebookAccount(url, username, password);
+            } else if (tag == TAG_FANPAGE) {
+                int likes = readVarint();
+                if (likes < 0) {
+                    throw new IOException("Invalid like count: " + likes);
+                }
+                return new Fanpage(url, username, password, likes);
+            } else if (tag == TAG_USER_PROFILE) {
+                UserProfile user = new UserProfile(url, username, password);
+                readFriends(user);
+                return user;
+            }
+
+            throw new IOException("Unknown account record tag: " + tag);
+        }
+
+        /**
+         * Reads the new persons, the changed persons and the
+         * delta-encoded id list written by Encoder.writeFriends().
+         */
+        private void readFriends(UserProfile user) throws IOException {
+            // 1. Append the new persons to the table
+            //    (a list cannot introduce more persons than it has friends)
+            int newPersons = readVarint();
+            if (newPersons < 0 || newPersons > UserProfile.MAX_FRIENDS) {
+                throw new IOException("Invalid new person count: " + newPersons);
+            }
+            for (int i = 0; i < newPersons; i++) {
+                String name = readString();
+                int age = unZigZag(readVarint());
+
+                if (this.personCount == this.persons.length) {
+                    Person[] grown = new Person[this.persons.length * 2];
+                    System.arraycopy(this.persons, 0, grown, 0, this.personCount);
+                    this.persons = grown;
+                }
+                this.persons[this.personCount++] = new Person(name, age);
+            }
+
+            // 2. Apply the changes to persons already in the table.
+            //    The Person object is shared, so earlier decoded friends
+            //    lists (and their age indexes) see the new values too.
+            int changedPersons = readVarint();
+            if (changedPersons < 0 || changedPersons > UserProfile.MAX_FRIENDS) {
+                throw new IOException("Invalid changed person count: " + changedPersons);
+            }
+            for (int i = 0; i < changedPersons; i++) {
+                int id = readVarint();
+                if (id < 0 || id >= this.personCount) {
+                    throw new IOException("Invalid person id: " + id);
+                }
+                this.persons[id].setName(readString());
+                this.persons[id].setAge(unZigZag(readVarint()));
+            }
+
+            // 3. Rebuild the friends list from the id differences
+            int friendCount = readVarint();
+            if (friendCount < 0 || friendCount > UserProfile.MAX_FRIENDS) {
+                throw new IOException("Invalid friend count: " + friendCount);
+            }
+
+            int current = 0;
+            for (int i = 0; i < friendCount; i++) {
+                current += unZigZag(readVarint());
+                if (current < 0 || current > this.personCount) {
+                    throw new IOException("Invalid person id: " + (current - 1));
+                }
+                user.addFriend(current == 0 ? null : this.persons[current - 1]);
+            }
+        }
+
+        /**
+         * Reads a string reference, decoding and storing a new
+         * literal in the dictionary when one follows.
+         */
+        private String readString() throws IOException {
+            int ref = readVarint();
+
+            if (ref == STRING_NULL) {
+                return null;
+            }
+
+            if (ref != STRING_LITERAL) {
+                int index = ref - STRING_FIRST_REF;
+                if (index < 0 || index >= this.stringCount) {
+                    throw new IOException("Invalid string reference: " + index);
+                }
+                return this.strings[index];
+            }
+
+            int length = readVarint();
+            if (length < 0 || length > MAX_STRING_BYTES) {
+                throw new IOException("Invalid string length: " + length);
+            }
+            if (length > this.stringBytes.length) {
+                this.stringBytes = new byte[Math.max(length, this.stringBytes.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                this.stringBytes[i] = (byte) readByte();
+            }
+            String value = new String(this.stringBytes, 0, length, StandardCharsets.UTF_8);
+
+            if (this.stringCount == this.strings.length) {
+                String[] grown = new String[this.strings.length * 2];
+                System.arraycopy(this.strings, 0, grown, 0, this.stringCount);
+                this.strings = grown;
+            }
+            this.strings[this.stringCount++] = value;
+
+            return value;
+        }
+
+        /**
+         * Reads an unsigned varint written by Encoder.writeVarint().
+         * The 5th byte may only carry the 4 remaining bits of an int.
+         */
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                if (shift == 28 && (b & 0xF0) != 0) {
+                    throw new IOException("Malformed varint (too large for an int)");
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        /**
+         * Reads one byte (0 to 255) from the internal buffer,
+         * refilling it from the stream when empty.
+         */
+        private int readByte() throws IOException {
+            if (this.position == this.limit) {
+                // Mark first, so that giveBackUnreadBytes() can rewind
+                int n;
+                if (this.canRewind) {
+                    this.in.mark(this.buffer.length);
+                    n = this.in.read(this.buffer, 0, this.buffer.length);
+                } else {
+                    n = this.in.read(this.buffer, 0, 1);
+                }
+                if (n <= 0) {
+                    throw new EOFException("Unexpected end of account stream");
+                }
+                this.position = 0;
+                this.limit = n;
+            }
+            return this.buffer[this.position++] & 0xFF;
+        }
+
+        /**
+         * Rewinds the stream to just after the last byte actually used,
+         * so the bytes read ahead into the buffer stay in the stream.
+         */
+        private void giveBackUnreadBytes() throws IOException {
+            if (!this.canRewind || this.position == this.limit) {
+                return;
+            }
+
+            // 1. Go back to the start of the current block...
+            this.in.reset();
+
+            // 2. ...then skip the bytes that were used
+            int toSkip = this.position;
+            while (toSkip > 0) {
+                int n = this.in.read(this.buffer, 0, toSkip);
+                if (n <= 0) {
+                    throw new EOFException("Unexpected end of account stream");
+                }
+                toSkip -= n;
+            }
+
+            this.position = 0;
+            this.limit = 0;
+        }
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * "ZigZag" maps signed ints to unsigned ones so that small
+     * negative numbers also become small varints (0, -1, 1, -2 ... -> 0, 1, 2, 3 ...).
+     */
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.ArrayList;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * AgeIndex.java
+ *
+ * Author: Guilherme Kologeski
+ *
+ * This class indexes a set of 'Person' objects by age, so that
+ * demographic questions (e.g., "how many friends are aged 18 to 24?")
+ * can be answered without visiting every person.
+ *
+ * It keeps two structures in sync:
+ * 1. A **bucketed histogram**: one counter per year of age, so that
+ *    range *counts* are a short sum of counters.
+ * 2. A **sorted map** keyed on (age, person id), so that range
+ *    *enumerations* only visit the persons inside the range.
+ *
+ * Persons are added through add(); when a person's age changes,
+ * Person.setAge() calls move() on every index that contains it.
+ * Persons only hold *weak* references to their indexes, so an index
+ * is garbage collected together with its owner (a UserProfile or a
+ * Facebook), even if some of its persons are still in use.
+ */
+public class AgeIndex {
+
+    // --- Constants ---
+
+    /**
+     * Number of histogram buckets: ages 0 to 127 each have their own
+     * bucket. Persons with an age outside this range are still indexed
+     * in the sorted map, but counted through it instead.
+     */
+    public static final int BUCKET_COUNT = 128;
+
+    // --- Attributes ---
+
+    /** Histogram: 'buckets[age]' is the number of indexed persons of that age. */
+    private final int[] buckets;
+
+    /**
+     * Sorted map from the (age, id) key to the Person.
+     * Since ids are unique, each person has exactly one key.
+     */
+    private final TreeMap<Long, Person> sorted;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a new, empty AgeIndex.
+     */
+    public AgeIndex() {
+        this.buckets = new int[BUCKET_COUNT];
+        this.sorted = new TreeMap<>();
+    }
+
+    // --- Core Methods ---
+
+    /**
+     * Adds a person to this index, if it is not already in it.
+     * 'package-private': the index is filled by the UserProfile class.
+     *
+     * @param person The Person object to be indexed.
+     * @return 'true' if the person was added, 'false' if it
+     * was already indexed.
+     */
+    boolean add(Person person) {
+        // 1. "Guard Clause": each person is indexed only once
+        if (this.sorted.putIfAbsent(key(person.getAge(), person.getId()), person) != null) {
+            return false;
+        }
+
+        // 2. Update the histogram
+        updateBucket(person.getAge(), 1);
+
+        // 3. Let the person notify this index of future age changes
+        person.registerIndex(this);
+
+        return true;
+    }
+
+    /**
+     * Moves a person from its old age to its current age.
+     * 'package-private': only Person.setAge() calls it.
+     *
+     * @param person The Person object whose age changed.
+     * @param oldAge The age the person had before the change.
+     */
+    void move(Person person, int oldAge) {
+        this.sorted.remove(key(oldAge, person.getId()));
+        this.sorted.put(key(person.getAge(), person.getId()), person);
+
+        updateBucket(oldAge, -1);
+        updateBucket(person.getAge(), 1);
+    }
+
+    // --- Query Methods ---
+
+    /**
+     * Gets the number of persons in this index.
+     *
+     * @return The integer count of indexed persons.
+     */
+    public int size() {
+        return this.sorted.size();
+    }
+
+    /**
+     * Counts the indexed persons whose age is between the two limits.
+     *
+     * @param minAge The lowest age to count (inclusive).
+     * @param maxAge The highest age to count (inclusive).
+     * @return The number of persons in the age range.
+     */
+    public int countInRange(int minAge, int maxAge) {
+        if (minAge > maxAge) {
+            return 0;
+        }
+
+        int count = 0;
+
+        // 1. The part of the range covered by the histogram (0 to 127)
+        int low = Math.max(minAge, 0);
+        int high = Math.min(maxAge, BUCKET_COUNT - 1);
+        for (int age = low; age <= high; age++) {
+            count += this.buckets[age];
+        }
+
+        // 2. The parts outside the histogram, counted through the sorted
+        //    map (they only hold persons with an unusual age)
+        if (minAge < 0) {
+            count += range(minAge, Math.min(maxAge, -1)).size();
+        }
+        if (maxAge >= BUCKET_COUNT) {
+            count += range(Math.max(minAge, BUCKET_COUNT), maxAge).size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Lists the indexed persons whose age is between the two limits,
+     * ordered by age (and by id for persons of the same age).
+     *
+     * @param minAge The lowest age to include (inclusive).
+     * @param maxAge The highest age to include (inclusive).
+     * @return A new array with exactly the persons in the age range.
+     */
+    public Person[] findInRange(int minAge, int maxAge) {
+        if (minAge > maxAge) {
+            return new Person[0];
+        }
+
+        // Walk the sorted map only once, collecting the matches
+        ArrayList<Person> result = new ArrayList<>();
+        for (Person person : range(minAge, maxAge).values()) {
+            result.add(person);
+        }
+
+        return result.toArray(new Person[0]);
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Builds the sorted-map key: the age in the high 32 bits and the
+     * id in the low 32 bits, so keys sort by age first, then by id.
+     */
+    private static long key(int age, int id) {
+        return ((long) age << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the live view of the sorted map between two ages (inclusive).
+     */
+    private NavigableMap<Long, Person> range(int minAge, int maxAge) {
+        return this.sorted.subMap(key(minAge, 0), true, key(maxAge, -1), true);
+    }
+
+    /**
+     * Adds 'delta' to the histogram bucket of an age, if it has one.
+     */
+    private void updateBucket(int age, int delta) {
+        if (age >= 0 && age < BUCKET_COUNT) {
+            this.buckets[age] += delta;
+        }
+    }
+}
@@ -29,6 +29,12 @@ public class Facebook {
      */
     private int accountCount;
 
+    /**
+     * An index by age of every person who is a friend of at least
+     * one 'UserProfile' stored in this Facebook instance.
+     */
+    private AgeIndex friendAgeIndex;
+
     // --- Constructor ---
 
     /**
@@ -43,6 +49,9 @@ public class Facebook {
 
         // 2. Initialize the counter to 0
         this.accountCount = 0;
+
+        // 3. Start with an empty age index
+        this.friendAgeIndex = new AgeIndex();
     }
 
     // --- Core Methods ---
@@ -68,6 +77,11 @@ public class Facebook {
         // 3. Increment the counter
         this.accountCount++;
 
+        // 4. Index the friends of user profiles (now and in the future)
+        if (account instanceof UserProfile) {
+            ((UserProfile) account).attachAgeIndex(this.friendAgeIndex);
+        }
+
         return true; // Success
     }
 
@@ -91,6 +105,16 @@ public class Facebook {
         return this.accountCount;
     }
 
+    /**
+     * Gets the age index of all users' friends in this Facebook instance.
+     *
+     * @return The AgeIndex holding every person who is a friend
+     * of at least one stored UserProfile.
+     */
+    public AgeIndex getFriendAgeIndex() {
+        return this.friendAgeIndex;
+    }
+
     // --- Reporting Methods ---
 
     /**
@@ -130,4 +154,26 @@ public class Facebook {
             // If it's a 'UserProfile' or other type, it is skipped.
         }
     }
+
+    /**
+     * Iterates through all active accounts and, for every 'UserProfile',
+     * prints how many of its friends are within an age range.
+     *
+     * Each count comes from the user's 'AgeIndex', so the friends
+     * lists themselves are not visited.
+     *
+     * @param minAge The lowest age to count (inclusive).
+     * @param maxAge The highest age to count (inclusive).
+     */
+    public void printFriendsInAgeRange(int minAge, int maxAge) {
+        for (int i = 0; i < this.accountCount; i++) {
+            FacebookAccount currentAccount = this.allAccounts[i];
+
+            if (currentAccount instanceof UserProfile) {
+                UserProfile user = (UserProfile) currentAccount;
+                int count = user.getFriendAgeIndex().countInRange(minAge, maxAge);
+                System.out.println(user.getUsername() + ": " + count + " friend(s) aged " + minAge + "-" + maxAge);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -62,6 +62,17 @@ public class FacebookAccount {
         return this.username;
     }
 
+    /**
+     * Gets the account's password.
+     * 'package-private' (no modifier) on purpose: only classes in
+     * this project, such as the 'AccountCodec', may read it.
+     *
+     * @return The string representation of the password.
+     */
+    String getPassword() {
+        return this.password;
+    }
+
     // --- Mutator Methods (Setters) ---
 
     /**
@@ -87,16 +98,27 @@ public class FacebookAccount {
      * This method implements business logic by requiring the user
      * to validate their *old* password before the change is applied.
      *
+     * An account with *no* password (e.g., one loaded by the
+     * 'AccountCodec' without passwords) has nothing to validate
+     * against, so its first password is set directly.
+     *
      * @param newPassword The new password to set if validation passes.
      */
     public void setPassword(String newPassword) {
-        // 1. Prompt for verification
+        // 1. "Guard Clause": no password yet, so there is nothing to check
+        if (this.password == null) {
+            this.password = newPassword;
+            System.out.println("  [SUCCESS] '" + this.username + "' had no password; the new password has been set.");
+            return;
+        }
+
+        // 2. Prompt for verification
         System.out.println("To change password for '" + this.username + "', please enter your OLD password:");
         
-        // 2. Read input
+        // 3. Read input
         String oldPasswordInput = scanner.nextLine();
 
-        // 3. Validate and apply change
+        // 4. Validate and apply change
         // (Use .equals() for string comparison, NOT '==')
         if (oldPasswordInput.equals(this.password)) {
             this.password = newPassword;
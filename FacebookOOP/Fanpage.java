@@ -38,6 +38,22 @@ public class Fanpage extends FacebookAccount {
         this.likes = 0;
     }
 
+    /**
+     * Constructs a Fanpage that already has a number of likes.
+     * 'package-private' on purpose: it exists so that the
+     * 'AccountCodec' can restore a saved page without calling
+     * addLike() once per like.
+     *
+     * @param url      The web address for this account (from parent).
+     * @param username The username for this account (from parent).
+     * @param password The password for this account (from parent).
+     * @param likes    The number of likes to restore.
+     */
+    Fanpage(String url, String username, String password, int likes) {
+        super(url, username, password);
+        this.likes = likes;
+    }
+
     // --- Accessor Method (Getter) ---
 
     /**
@@ -1,3 +1,7 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
 import java.util.Scanner;
 
 /**
@@ -12,7 +16,8 @@ import java.util.Scanner;
  * 1. Initializing the main 'Facebook' container.
  * 2. Populating it with different account types (polymorphically).
  * 3. Testing the system's boundary conditions (e.g., full capacity).
- * 4. Executing and testing the methods of all other classes.
+ * 4. Executing and testing the methods of all other classes
+ *    (including an age-range query and a binary serialization round-trip).
  */
 public class Main {
 
@@ -103,8 +108,9 @@ public class Main {
                 System.out.println("-> Adding " + friendCount + " friends to user: " + u.getUsername());
 
                 for (int j = 0; j < friendCount; j++) {
-                    // Create a new Person object
-                    Person friend = new Person("Friend_" + j, 25);
+                    // Create a new Person object with a random age (13 to 70)
+                    int age = (int) (Math.random() * 58) + 13;
+                    Person friend = new Person("Friend_" + j, age);
 
                     // Try to add the friend
                     boolean friendSuccess = u.addFriend(friend);
@@ -116,7 +122,54 @@ public class Main {
             }
         }
 
-        // --- 5. Test Secure Password Change ---
+        // --- 5. Demographic Query (Age Index Test) ---
+        System.out.println("\n--- Friends Aged 18-24 ---");
+        myFacebook.printFriendsInAgeRange(18, 24);
+        AgeIndex allFriends = myFacebook.getFriendAgeIndex();
+        System.out.println("All users: " + allFriends.countInRange(18, 24)
+                + " of " + allFriends.size() + " friends aged 18-24");
+
+        // --- 6. Binary Serialization (Round-Trip Test) ---
+        System.out.println("\n--- Binary Serialization ---");
+
+        // Size of the verbose text representation, for comparison
+        int textSize = 0;
+        for (int i = 0; i < realAccountCount; i++) {
+            textSize += accounts[i].toString().length();
+        }
+
+        try {
+            // Encode all accounts to an in-memory byte array
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            AccountCodec.encode(myFacebook, bytes);
+
+            // Decode them back into a *new* Facebook instance
+            Facebook copy = new Facebook(capacity);
+            int decoded = AccountCodec.decode(new ByteArrayInputStream(bytes.toByteArray()), copy);
+
+            System.out.println("    Text size: " + textSize + " chars, binary size: " + bytes.size() + " bytes.");
+            System.out.println("    Decoded " + decoded + " of " + realAccountCount + " accounts.");
+
+            // Compare the copy with the original, account by account
+            boolean allMatch = (decoded == realAccountCount);
+            FacebookAccount[] copiedAccounts = copy.getAllAccounts();
+            for (int i = 0; allMatch && i < decoded; i++) {
+                if (!sameAccount(accounts[i], copiedAccounts[i])) {
+                    System.out.println("    Mismatch at account " + (i + 1) + ": " + accounts[i].getUsername());
+                    allMatch = false;
+                }
+            }
+
+            if (allMatch) {
+                System.out.println("    [SUCCESS] Decoded accounts match the originals.");
+            } else {
+                System.out.println("    [FAILURE] Decoded accounts do NOT match the originals.");
+            }
+        } catch (IOException e) {
+            System.out.println("    [FAILURE] Serialization error: " + e.getMessage());
+        }
+
+        // --- 7. Test Secure Password Change ---
         System.out.println("\n--- Change Password ---");
         System.out.print("Enter username to change password: ");
         String searchUser = scanner.nextLine();
@@ -142,9 +195,57 @@ public class Main {
             System.out.println("    [FAILURE] User '" + searchUser + "' not found.");
         }
 
-        // --- 6. Cleanup Resources ---
+        // --- 8. Cleanup Resources ---
         System.out.println("\n--- End of Execution ---");
         // Always close the scanner
         scanner.close();
     }
+
+    /**
+     * Checks that a decoded account holds the same data as the original:
+     * type, URL, username, likes (Fanpage) or friends' names and ages
+     * (UserProfile). Passwords are left out by the codec by default,
+     * so the copy must have none.
+     *
+     * @param original The account that was encoded.
+     * @param copy     The account that was decoded.
+     * @return 'true' if both accounts match.
+     */
+    private static boolean sameAccount(FacebookAccount original, FacebookAccount copy) {
+        // 1. Common (inherited) fields
+        if (original.getClass() != copy.getClass()
+                || !Objects.equals(original.getUrl(), copy.getUrl())
+                || !Objects.equals(original.getUsername(), copy.getUsername())
+                || copy.getPassword() != null) {
+            return false;
+        }
+
+        // 2. Fanpage: the like count
+        if (original instanceof Fanpage) {
+            return ((Fanpage) original).getLikes() == ((Fanpage) copy).getLikes();
+        }
+
+        // 3. UserProfile: every friend, in order
+        if (original instanceof UserProfile) {
+            UserProfile originalUser = (UserProfile) original;
+            UserProfile copyUser = (UserProfile) copy;
+
+            if (originalUser.getFriendCount() != copyUser.getFriendCount()) {
+                return false;
+            }
+            for (int j = 0; j < originalUser.getFriendCount(); j++) {
+                Person a = originalUser.getFriend(j);
+                Person b = copyUser.getFriend(j);
+                if (a == null || b == null) {
+                    if (a != b) {
+                        return false;
+                    }
+                } else if (!Objects.equals(a.getName(), b.getName()) || a.getAge() != b.getAge()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
 }
\ No newline at end of file
@@ -1,3 +1,5 @@
+import java.lang.ref.WeakReference;
+
 /**
  * Person.java
  *
@@ -26,6 +28,36 @@ public class Person {
      */
     private int age;
 
+    /**
+     * A unique, sequential id for this person, assigned at construction.
+     * 'final' because it never changes; it breaks ties between persons
+     * of the same age inside an 'AgeIndex'.
+     */
+    private final int id;
+
+    /**
+     * A 'static' counter shared by all Person objects, holding
+     * the id that will be given to the next person created.
+     */
+    private static int nextId = 0;
+
+    /**
+     * The age indexes that contain this person, so that setAge()
+     * can keep them up to date. Allocated only when first needed.
+     *
+     * The references are *weak*: they do not keep an index alive, so a
+     * discarded UserProfile or Facebook (and its index) can be garbage
+     * collected even while this person is still in use elsewhere.
+     */
+    private WeakReference<?>[] indexes;
+
+    /**
+     * A private counter that tracks:
+     * 1. The *current number* of index references held.
+     * 2. The *next available index* in the 'indexes' array.
+     */
+    private int indexCount;
+
     // --- Constructor ---
 
     /**
@@ -39,6 +71,9 @@ public class Person {
     public Person(String name, int age) {
         this.name = name;
         this.age = age;
+        this.id = nextId++;
+        this.indexes = null;
+        this.indexCount = 0;
     }
 
     // --- Accessor Methods (Getters) ---
@@ -61,6 +96,15 @@ public class Person {
         return this.age;
     }
 
+    /**
+     * Gets the person's unique id.
+     *
+     * @return The integer id assigned when this person was created.
+     */
+    public int getId() {
+        return this.id;
+    }
+
     // --- Mutator Methods (Setters) ---
 
     /**
@@ -74,11 +118,62 @@ public class Person {
 
     /**
      * Sets or updates the person's age.
+     * Every 'AgeIndex' containing this person is updated as well.
      *
      * @param age The new age to set.
      */
     public void setAge(int age) {
+        int oldAge = this.age;
         this.age = age;
+
+        // Update the indexes still alive, dropping the collected ones
+        removeCollectedIndexes();
+        for (int i = 0; i < this.indexCount; i++) {
+            AgeIndex index = (AgeIndex) this.indexes[i].get();
+            if (index != null) {
+                index.move(this, oldAge);
+            }
+        }
+    }
+
+    // --- Index Registration ---
+
+    /**
+     * Records that this person was added to an 'AgeIndex'.
+     * 'package-private': only AgeIndex.add() calls it.
+     *
+     * @param index The index that now contains this person.
+     */
+    void registerIndex(AgeIndex index) {
+        if (this.indexes == null) {
+            this.indexes = new WeakReference<?>[2];
+        } else if (this.indexCount == this.indexes.length) {
+            // Reuse the slots of collected indexes before growing
+            removeCollectedIndexes();
+            if (this.indexCount == this.indexes.length) {
+                WeakReference<?>[] grown = new WeakReference<?>[this.indexes.length * 2];
+                System.arraycopy(this.indexes, 0, grown, 0, this.indexCount);
+                this.indexes = grown;
+            }
+        }
+        this.indexes[this.indexCount++] = new WeakReference<>(index);
+    }
+
+    /**
+     * Removes the references to indexes that were garbage collected,
+     * moving the remaining ones to the front of the array.
+     */
+    private void removeCollectedIndexes() {
+        int kept = 0;
+        for (int i = 0; i < this.indexCount; i++) {
+            if (this.indexes[i].get() != null) {
+                this.indexes[kept++] = this.indexes[i];
+            }
+        }
+        for (int i = kept; i < this.indexCount; i++) {
+            this.indexes[i] = null;
+        }
+        this.indexCount = kept;
     }
 
     // --- Overridden Methods ---
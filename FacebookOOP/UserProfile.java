@@ -1,3 +1,5 @@
+import java.lang.ref.WeakReference;
+
 /**
  * UserProfile.java
  *
@@ -33,6 +35,29 @@ public class UserProfile extends FacebookAccount {
      */
     public static final int MAX_FRIENDS = 1000;
 
+    /**
+     * An index of this user's friends by age, used to answer
+     * demographic questions without visiting the whole friends list.
+     */
+    private AgeIndex friendAgeIndex;
+
+    /**
+     * The age indexes of the 'Facebook' instances that hold this
+     * profile, so that addFriend() can keep them up to date too.
+     * Allocated only when first needed.
+     *
+     * The references are *weak*, so a discarded Facebook (and its
+     * index) can be garbage collected while this profile lives on.
+     */
+    private WeakReference<?>[] databaseIndexes;
+
+    /**
+     * A private counter that tracks:
+     * 1. The *current number* of Facebook index references held.
+     * 2. The *next available index* in the 'databaseIndexes' array.
+     */
+    private int databaseIndexCount;
+
     // --- Constructor ---
 
     /**
@@ -51,9 +76,14 @@ public class UserProfile extends FacebookAccount {
 
         // 3. Initialize the friend counter to 0.
         this.friendCount = 0;
+
+        // 4. Start with an empty age index.
+        this.friendAgeIndex = new AgeIndex();
+        this.databaseIndexes = null;
+        this.databaseIndexCount = 0;
     }
 
-    // --- Accessor Method (Getter) ---
+    // --- Accessor Methods (Getters) ---
 
     /**
      * Gets the current number of friends this user has.
@@ -64,6 +94,85 @@ public class UserProfile extends FacebookAccount {
         return this.friendCount;
     }
 
+    /**
+     * Gets the friend stored at the given position of the friends list.
+     *
+     * @param index The position of the friend (0 to getFriendCount() - 1).
+     * @return The Person object at that position.
+     * @throws IndexOutOfBoundsException if the index is not an active slot.
+     */
+    public Person getFriend(int index) {
+        if (index < 0 || index >= this.friendCount) {
+            throw new IndexOutOfBoundsException("Friend index: " + index);
+        }
+        return this.friends[index];
+    }
+
+    /**
+     * Gets the age index of this user's friends.
+     *
+     * @return The AgeIndex holding this user's (distinct) friends.
+     */
+    public AgeIndex getFriendAgeIndex() {
+        return this.friendAgeIndex;
+    }
+
+    /**
+     * Links this profile to the age index of a 'Facebook' instance:
+     * the current friends are added to it, and so will future ones.
+     * Attaching the same index again has no effect.
+     * 'package-private': only Facebook.addAccount() calls it.
+     *
+     * @param index The Facebook's index of all its users' friends.
+     */
+    void attachAgeIndex(AgeIndex index) {
+        // 1. "Guard Clause": the index is already attached (e.g., the
+        //    profile was added to the same Facebook twice)
+        for (int i = 0; i < this.databaseIndexCount; i++) {
+            if (this.databaseIndexes[i].get() == index) {
+                return;
+            }
+        }
+
+        // 2. Remember the index (reusing the slots of collected
+        //    indexes, then growing the array when full)
+        if (this.databaseIndexes == null) {
+            this.databaseIndexes = new WeakReference<?>[1];
+        } else if (this.databaseIndexCount == this.databaseIndexes.length) {
+            removeCollectedIndexes();
+            if (this.databaseIndexCount == this.databaseIndexes.length) {
+                WeakReference<?>[] grown = new WeakReference<?>[this.databaseIndexes.length * 2];
+                System.arraycopy(this.databaseIndexes, 0, grown, 0, this.databaseIndexCount);
+                this.databaseIndexes = grown;
+            }
+        }
+        this.databaseIndexes[this.databaseIndexCount++] = new WeakReference<>(index);
+
+        // 3. Add the friends this user already has
+        for (int i = 0; i < this.friendCount; i++) {
+            if (this.friends[i] != null) {
+                index.add(this.friends[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes the references to Facebook indexes that were garbage
+     * collected, moving the remaining ones to the front of the array.
+     */
+    private void removeCollectedIndexes() {
+        int kept = 0;
+        for (int i = 0; i < this.databaseIndexCount; i++) {
+            if (this.databaseIndexes[i].get() != null) {
+                this.databaseIndexes[kept++] = this.databaseIndexes[i];
+            }
+        }
+        for (int i = kept; i < this.databaseIndexCount; i++) {
+            this.databaseIndexes[i] = null;
+        }
+        this.databaseIndexCount = kept;
+    }
+
     // --- Core Method (Business Logic) ---
 
     /**
@@ -85,6 +194,17 @@ public class UserProfile extends FacebookAccount {
         // 3. Increment the counter
         this.friendCount++;
 
+        // 4. Keep the age indexes in sync (a 'null' slot has no age)
+        if (friendToAdd != null) {
+            this.friendAgeIndex.add(friendToAdd);
+            for (int i = 0; i < this.databaseIndexCount; i++) {
+                AgeIndex index = (AgeIndex) this.databaseIndexes[i].get();
+                if (index != null) {
+                    index.add(friendToAdd);
+                }
+            }
+        }
+
         return true; // Return success
     }
 